@@ -24,6 +24,30 @@ public class AttributeConditionalProbability {
         this.calculateConditionalProbabilities();
     }
     
+    // builds conditional probabilities from already counted occurencies, 
+    // e.g. partial counts merged from several training processes
+    public AttributeConditionalProbability(Attribute attribute, Attribute classAttribute,
+            ConditionalProbabilityTable attributeOccurencies, 
+            HashMap<String, Double> classAttributeOccurencies) {
+        this.attribute = attribute;
+        this.classAttribute = classAttribute;
+        this.conditionalProbabilityTable = 
+                new ConditionalProbabilityTable(this.attribute, this.classAttribute);
+        Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            String classAttributeValue = classAttributeValueEnum.nextElement();
+            Enumeration<String> attributeValueEnum = this.attribute.enumerateValues();
+            while(attributeValueEnum.hasMoreElements()) {
+                String attributeValue = attributeValueEnum.nextElement();
+                this.conditionalProbabilityTable.putValue(
+                        attributeOccurencies.getValue(attributeValue, classAttributeValue),
+                        attributeValue, 
+                        classAttributeValue);
+            }
+        }
+        this.normalizeConditionalProbabilities(classAttributeOccurencies);
+    }
+    
     public Attribute getAttribute() {
         return this.attribute;
     }
@@ -61,8 +85,12 @@ public class AttributeConditionalProbability {
                     classAttributeValue);
         }
         
-        // Calculating conditional probabilities 
-        classAttributeValueEnum = this.classAttribute.enumerateValues();
+        this.normalizeConditionalProbabilities(classAttributeOccurencies);
+    }
+    
+    // turns attribute value occurencies stored in table into conditional probabilities
+    private void normalizeConditionalProbabilities(HashMap<String, Double> classAttributeOccurencies) {
+        Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
         while(classAttributeValueEnum.hasMoreElements()) {
             String classAttributeValue = classAttributeValueEnum.nextElement();
             Double numberOfOccurenciesOfClassAttributeValue = 
@@ -73,8 +101,12 @@ public class AttributeConditionalProbability {
                 String attributeValue = attributeValueEnum.nextElement();
                 Double numberOfAttributeValueOccurencies =
                         this.conditionalProbabilityTable.getValue(attributeValue, classAttributeValue);
+                // class value never seen - no evidence for any attribute value
+                Double conditionalProbability = numberOfOccurenciesOfClassAttributeValue > 0.0 
+                        ? numberOfAttributeValueOccurencies/numberOfOccurenciesOfClassAttributeValue
+                        : 0.0;
                 this.conditionalProbabilityTable.putValue(
-                        numberOfAttributeValueOccurencies/numberOfOccurenciesOfClassAttributeValue,
+                        conditionalProbability,
                         attributeValue, 
                         classAttributeValue);
             }
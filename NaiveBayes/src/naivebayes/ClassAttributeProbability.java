@@ -23,6 +23,28 @@ public class ClassAttributeProbability {
         this.calculateAttributeProbabilities();
     }
     
+    // builds class attribute probability from already counted occurencies 
+    // of each class attribute value, e.g. merged partial counts
+    public ClassAttributeProbability(Attribute classAttribute, HashMap<String, Double> classAttributeOccurencies) {
+        this.classAttribute = classAttribute;
+        this.classAttributeProbability = new HashMap<String, Double>();
+        
+        Double numberOfInstances = 0.0;
+        Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            numberOfInstances += classAttributeOccurencies.get(classAttributeValueEnum.nextElement());
+        }
+        
+        classAttributeValueEnum = this.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            String classAttributeValue = classAttributeValueEnum.nextElement();
+            Double probabilityOfClassAttributeValue = numberOfInstances > 0.0
+                    ? classAttributeOccurencies.get(classAttributeValue)/numberOfInstances
+                    : 0.0;
+            this.classAttributeProbability.put(classAttributeValue, probabilityOfClassAttributeValue);
+        }
+    }
+    
     public double getProbability(String classAttributeValue){
         return this.classAttributeProbability.get(classAttributeValue);
     }
@@ -0,0 +1,97 @@
+package naivebayes;
+
+import java.util.Enumeration;
+import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.core.Instance;
+import weka.core.Instances;
+
+// classifier with exponentially decayed occurencies - each decay step
+// multiplies weight of everything seen so far by decay factor.
+// Decay is applied lazily: stored counts are real counts divided by global
+// scale, so decay step only changes the scale and new instances are added
+// with weight 1/scale. Probabilities are ratios of counts, so scale does not
+// change them and stored counts are rescaled only when scale gets too small.
+// Model without any instance gives no prediction - classifyInstance returns missing value
+public class DecayedNaiveBayes extends Classifier implements UpdateableClassifier {
+
+    // below this scale stored counts are multiplied by scale to avoid overflow
+    protected static final double MINIMUM_SCALE = 1e-100;
+    protected static final double DEFAULT_DECAY_FACTOR = 0.99;
+
+    protected double decayFactor;
+    // real count = stored count * scale
+    protected double scale;
+    protected PartialCounts counts;
+    // classifier built from counts, rebuilt after counts change
+    protected NaiveBayes naiveBayes;
+
+    // default constructor lets weka create classifier by class name, but counts
+    // decay only by decay calls - without them (e.g. in weka command line
+    // evaluation) classifier works like plain naive bayes
+    public DecayedNaiveBayes() {
+        this(DEFAULT_DECAY_FACTOR);
+    }
+
+    public DecayedNaiveBayes(double decayFactor) {
+        this.setDecayFactor(decayFactor);
+    }
+
+    public double getDecayFactor() {
+        return this.decayFactor;
+    }
+
+    // new decay factor is used by following decay steps
+    public void setDecayFactor(double decayFactor) {
+        if(decayFactor <= 0.0 || decayFactor > 1.0) {
+            throw new IllegalArgumentException("Decay factor has to be in (0, 1]: " + decayFactor);
+        }
+        this.decayFactor = decayFactor;
+    }
+
+    // real (decayed) number of instances of class attribute value
+    public double getClassAttributeOccurencies(String classAttributeValue) {
+        return this.counts.getClassAttributeOccurencies().get(classAttributeValue)*this.scale;
+    }
+
+    // classifier building - all instances get full weight
+    @Override
+    public void buildClassifier(Instances i) throws Exception {
+        this.counts = new PartialCounts(i);
+        this.scale = 1.0;
+        this.naiveBayes = null;
+
+        Enumeration<Instance> instancesEnum = i.enumerateInstances();
+        while(instancesEnum.hasMoreElements()) {
+            this.updateClassifier(instancesEnum.nextElement());
+        }
+    }
+
+    @Override
+    public void updateClassifier(Instance instance) {
+        this.counts.addInstance(instance, 1.0/this.scale);
+        this.naiveBayes = null;
+    }
+
+    // multiplies weight of all instances seen so far by decay factor
+    public void decay() {
+        this.scale *= this.decayFactor;
+        if(this.scale < MINIMUM_SCALE) {
+            this.counts.multiply(this.scale);
+            this.scale = 1.0;
+        }
+    }
+
+    @Override
+    public double classifyInstance(Instance inst) {
+        if(this.counts.getNumberOfInstances() <= 0.0) {
+            return Instance.missingValue();
+        }
+        if(this.naiveBayes == null) {
+            this.naiveBayes = new NaiveBayes();
+            this.naiveBayes.buildClassifier(this.counts);
+        }
+        return this.naiveBayes.classifyInstance(inst);
+    }
+
+}
@@ -42,6 +42,30 @@ public class NaiveBayes extends Classifier{
         }
     }
     
+    // classifier building from occurencies counted (and merged) by
+    // separate processes, each training on its own part of data
+    public void buildClassifier(PartialCounts partialCounts) {
+        this.conditionalProbabilities = new LinkedList<AttributeConditionalProbability>();
+        this.classAttribute = partialCounts.getClassAttribute();
+        this.classAttributeProbability = new ClassAttributeProbability(
+                this.classAttribute, 
+                partialCounts.getClassAttributeOccurencies());
+        
+        Enumeration<Attribute> attributesEnum = partialCounts.getHeader().enumerateAttributes();
+        while(attributesEnum.hasMoreElements()) {
+            Attribute attribute = attributesEnum.nextElement();
+            if(attribute.isNominal()) {
+                AttributeConditionalProbability attributeProbability 
+                        = new AttributeConditionalProbability(
+                            attribute, 
+                            this.classAttribute, 
+                            partialCounts.getAttributeOccurencies(attribute), 
+                            partialCounts.getClassAttributeOccurencies());
+                this.conditionalProbabilities.add(attributeProbability);
+            }
+        }
+    }
+    
     @Override
     public double classifyInstance(Instance inst) {
         LinkedList<Pair> classificationProbabilities = new LinkedList<Pair>();
@@ -58,6 +82,10 @@ public class NaiveBayes extends Classifier{
             while(conditionalProbabilitiesIterator.hasNext()) {
                 AttributeConditionalProbability attributeConditionalProbability = 
                         conditionalProbabilitiesIterator.next();
+                // missing value gives no evidence - skipped like in PartialCounts
+                if(inst.isMissing(attributeConditionalProbability.getAttribute())) {
+                    continue;
+                }
                 classAffiliationProbability 
                         *= attributeConditionalProbability.getConditionalProbability(
                         inst.stringValue(attributeConditionalProbability.getAttribute()), 
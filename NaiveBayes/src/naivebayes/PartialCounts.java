@@ -0,0 +1,451 @@
+package naivebayes;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.util.Enumeration;
+import java.util.HashMap;
+import weka.classifiers.Evaluation;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ConverterUtils.DataSource;
+
+// Class storing occurencies counted on a part (shard) of training data:
+// number of instances of each class attribute value and number of
+// attribute value occurencies for each class attribute value.
+// Counts from different shards can be merged and turned into classifier,
+// so training can be split between many processes or machines.
+public class PartialCounts {
+
+    // count lines are written as arff comments after header, so file
+    // stays valid (empty) arff dataset readable by weka tools
+    protected static final String CLASS_INDEX_PREFIX = "%class-index";
+    protected static final String CLASS_COUNT_PREFIX = "%class";
+    protected static final String ATTRIBUTE_COUNT_PREFIX = "%attribute";
+    protected static final String SEPARATOR = "\t";
+
+    // empty dataset describing attributes of counted instances
+    protected Instances header;
+    protected Attribute classAttribute;
+
+    // hashmap to store number of occurencies of each class attribute value
+    protected HashMap<String, Double> classAttributeOccurencies;
+    // tables to store number of attribute value occurencies for each
+    // class attribute value, keyed by attribute name
+    protected HashMap<String, ConditionalProbabilityTable> attributeOccurencies;
+
+    // creates empty counts for instances described by header,
+    // class attribute has to be nominal
+    public PartialCounts(Instances header) {
+        this.header = new Instances(header, 0);
+        this.classAttribute = this.header.classAttribute();
+        if(!this.classAttribute.isNominal()) {
+            throw new IllegalArgumentException("Partial counts need nominal class attribute, "
+                    + this.classAttribute.name() + " in " + this.header.relationName() + " is not nominal");
+        }
+        this.classAttributeOccurencies = new HashMap<String, Double>();
+        this.attributeOccurencies = new HashMap<String, ConditionalProbabilityTable>();
+        this.initCounts();
+    }
+
+    // counts all instances of (local) training data
+    public static PartialCounts count(Instances instances) {
+        PartialCounts partialCounts = new PartialCounts(instances);
+        Enumeration<Instance> instancesEnum = instances.enumerateInstances();
+        while(instancesEnum.hasMoreElements()) {
+            partialCounts.addInstance(instancesEnum.nextElement());
+        }
+        return partialCounts;
+    }
+
+    public Instances getHeader() {
+        return this.header;
+    }
+
+    public Attribute getClassAttribute() {
+        return this.classAttribute;
+    }
+
+    public HashMap<String, Double> getClassAttributeOccurencies() {
+        return this.classAttributeOccurencies;
+    }
+
+    public ConditionalProbabilityTable getAttributeOccurencies(Attribute attribute) {
+        return this.attributeOccurencies.get(attribute.name());
+    }
+
+    // sum of occurencies of all class attribute values
+    public double getNumberOfInstances() {
+        double numberOfInstances = 0.0;
+        Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            numberOfInstances += this.classAttributeOccurencies.get(classAttributeValueEnum.nextElement());
+        }
+        return numberOfInstances;
+    }
+
+    public void addInstance(Instance instance) {
+        this.addInstance(instance, 1.0);
+    }
+
+    // adds occurencies of instance values with given weight,
+    // instances with missing class value are skipped
+    public void addInstance(Instance instance, double weight) {
+        if(instance.classIsMissing()) {
+            return;
+        }
+        String classAttributeValue = instance.stringValue(this.classAttribute);
+        this.classAttributeOccurencies.put(
+                classAttributeValue,
+                this.classAttributeOccurencies.get(classAttributeValue)+weight);
+
+        Enumeration<Attribute> attributesEnum = this.header.enumerateAttributes();
+        while(attributesEnum.hasMoreElements()) {
+            Attribute attribute = attributesEnum.nextElement();
+            if(attribute.isNominal() && !instance.isMissing(attribute)) {
+                ConditionalProbabilityTable table = this.attributeOccurencies.get(attribute.name());
+                String attributeValue = instance.stringValue(attribute);
+                table.putValue(
+                        table.getValue(attributeValue, classAttributeValue)+weight,
+                        attributeValue,
+                        classAttributeValue);
+            }
+        }
+    }
+
+    // adds counts from other shard - headers have to be compatible
+    public void merge(PartialCounts other) throws Exception {
+        this.checkCompatibility(other);
+        this.add(other, 1.0);
+    }
+
+    // adds counts from other compatible counts multiplied by factor,
+    // e.g. -1.0 to remove previously merged counts
+    protected void add(PartialCounts other, double factor) {
+        Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            String classAttributeValue = classAttributeValueEnum.nextElement();
+            this.classAttributeOccurencies.put(
+                    classAttributeValue,
+                    this.classAttributeOccurencies.get(classAttributeValue)
+                    +factor*other.classAttributeOccurencies.get(classAttributeValue));
+
+            Enumeration<Attribute> attributesEnum = this.header.enumerateAttributes();
+            while(attributesEnum.hasMoreElements()) {
+                Attribute attribute = attributesEnum.nextElement();
+                if(attribute.isNominal()) {
+                    ConditionalProbabilityTable table = this.attributeOccurencies.get(attribute.name());
+                    ConditionalProbabilityTable otherTable = other.attributeOccurencies.get(attribute.name());
+                    Enumeration<String> attributeValueEnum = attribute.enumerateValues();
+                    while(attributeValueEnum.hasMoreElements()) {
+                        String attributeValue = attributeValueEnum.nextElement();
+                        table.putValue(
+                                table.getValue(attributeValue, classAttributeValue)
+                                +factor*otherTable.getValue(attributeValue, classAttributeValue),
+                                attributeValue,
+                                classAttributeValue);
+                    }
+                }
+            }
+        }
+    }
+
+    // multiplies all counts by factor, e.g. to apply decay of old occurencies
+    protected void multiply(double factor) {
+        Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            String classAttributeValue = classAttributeValueEnum.nextElement();
+            this.classAttributeOccurencies.put(
+                    classAttributeValue,
+                    factor*this.classAttributeOccurencies.get(classAttributeValue));
+
+            Enumeration<Attribute> attributesEnum = this.header.enumerateAttributes();
+            while(attributesEnum.hasMoreElements()) {
+                Attribute attribute = attributesEnum.nextElement();
+                if(attribute.isNominal()) {
+                    ConditionalProbabilityTable table = this.attributeOccurencies.get(attribute.name());
+                    Enumeration<String> attributeValueEnum = attribute.enumerateValues();
+                    while(attributeValueEnum.hasMoreElements()) {
+                        String attributeValue = attributeValueEnum.nextElement();
+                        table.putValue(
+                                factor*table.getValue(attributeValue, classAttributeValue),
+                                attributeValue,
+                                classAttributeValue);
+                    }
+                }
+            }
+        }
+    }
+
+    // counts can be merged only if they were counted on the same attributes
+    // (names, types and values in the same order) with the same class attribute
+    // (class index is compared first, because weka equalHeaders compares it too)
+    public void checkCompatibility(PartialCounts other) throws Exception {
+        if(this.header.classIndex() != other.header.classIndex()) {
+            throw new Exception("Partial counts have different class attributes: "
+                    + this.classAttribute.name() + " and " + other.classAttribute.name());
+        }
+        if(!this.header.equalHeaders(other.header)) {
+            throw new Exception("Partial counts headers are not compatible: "
+                    + this.header.relationName() + " and " + other.header.relationName());
+        }
+    }
+    
+    // checks whether all counts are equal to counts of other compatible counts
+    // with given tolerance
+    public boolean equalCounts(PartialCounts other, double tolerance) {
+        Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            String classAttributeValue = classAttributeValueEnum.nextElement();
+            if(Math.abs(this.classAttributeOccurencies.get(classAttributeValue)
+                    -other.classAttributeOccurencies.get(classAttributeValue)) > tolerance) {
+                return false;
+            }
+            
+            Enumeration<Attribute> attributesEnum = this.header.enumerateAttributes();
+            while(attributesEnum.hasMoreElements()) {
+                Attribute attribute = attributesEnum.nextElement();
+                if(attribute.isNominal()) {
+                    ConditionalProbabilityTable table = this.attributeOccurencies.get(attribute.name());
+                    ConditionalProbabilityTable otherTable = other.attributeOccurencies.get(attribute.name());
+                    Enumeration<String> attributeValueEnum = attribute.enumerateValues();
+                    while(attributeValueEnum.hasMoreElements()) {
+                        String attributeValue = attributeValueEnum.nextElement();
+                        if(Math.abs(table.getValue(attributeValue, classAttributeValue)
+                                -otherTable.getValue(attributeValue, classAttributeValue)) > tolerance) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // writes counts to file - arff header followed by count lines:
+    // %class-index <index>
+    // %class <class value> <count>
+    // %attribute <attribute name> <attribute value> <class value> <count>
+    // names and values are written as they are, so they can't contain
+    // separator or line breaks
+    public void write(File file) throws Exception {
+        this.checkWritableNames();
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            writer.print(this.header.toString());
+            writer.println(CLASS_INDEX_PREFIX + SEPARATOR + this.header.classIndex());
+
+            Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
+            while(classAttributeValueEnum.hasMoreElements()) {
+                String classAttributeValue = classAttributeValueEnum.nextElement();
+                writer.println(CLASS_COUNT_PREFIX + SEPARATOR + classAttributeValue
+                        + SEPARATOR + this.classAttributeOccurencies.get(classAttributeValue));
+            }
+
+            Enumeration<Attribute> attributesEnum = this.header.enumerateAttributes();
+            while(attributesEnum.hasMoreElements()) {
+                Attribute attribute = attributesEnum.nextElement();
+                if(!attribute.isNominal()) {
+                    continue;
+                }
+                ConditionalProbabilityTable table = this.attributeOccurencies.get(attribute.name());
+                Enumeration<String> attributeValueEnum = attribute.enumerateValues();
+                while(attributeValueEnum.hasMoreElements()) {
+                    String attributeValue = attributeValueEnum.nextElement();
+                    classAttributeValueEnum = this.classAttribute.enumerateValues();
+                    while(classAttributeValueEnum.hasMoreElements()) {
+                        String classAttributeValue = classAttributeValueEnum.nextElement();
+                        writer.println(ATTRIBUTE_COUNT_PREFIX + SEPARATOR + attribute.name()
+                                + SEPARATOR + attributeValue + SEPARATOR + classAttributeValue
+                                + SEPARATOR + table.getValue(attributeValue, classAttributeValue));
+                    }
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void checkWritableNames() throws Exception {
+        Enumeration<Attribute> attributesEnum = this.header.enumerateAttributes();
+        while(attributesEnum.hasMoreElements()) {
+            Attribute attribute = attributesEnum.nextElement();
+            if(attribute.isNominal()) {
+                checkWritableAttribute(attribute);
+            }
+        }
+        checkWritableAttribute(this.classAttribute);
+    }
+    
+    private static void checkWritableAttribute(Attribute attribute) throws Exception {
+        checkWritableName(attribute.name(), "attribute name");
+        Enumeration<String> attributeValueEnum = attribute.enumerateValues();
+        while(attributeValueEnum.hasMoreElements()) {
+            checkWritableName(attributeValueEnum.nextElement(), "value of attribute " + attribute.name());
+        }
+    }
+    
+    private static void checkWritableName(String name, String description) throws Exception {
+        if(name.contains(SEPARATOR) || name.contains("\n") || name.contains("\r")) {
+            throw new Exception("Partial counts can't be written - " + description 
+                    + " contains tab or line break: " + name);
+        }
+    }
+
+    // reads counts written by write method
+    public static PartialCounts read(File file) throws Exception {
+        StringBuilder headerText = new StringBuilder();
+        HashMap<String, Double> classCounts = new HashMap<String, Double>();
+        HashMap<String, Double> attributeCounts = new HashMap<String, Double>();
+        int classIndex = -1;
+
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            boolean readingHeader = true;
+            String line;
+            while((line = reader.readLine()) != null) {
+                if(readingHeader) {
+                    headerText.append(line).append("\n");
+                    if(line.trim().equalsIgnoreCase("@data")) {
+                        readingHeader = false;
+                    }
+                    continue;
+                }
+                String[] fields = line.split(SEPARATOR, -1);
+                if(fields[0].equals(CLASS_INDEX_PREFIX) && fields.length == 2) {
+                    classIndex = Integer.parseInt(fields[1]);
+                } else if(fields[0].equals(CLASS_COUNT_PREFIX) && fields.length == 3) {
+                    classCounts.put(fields[1], Double.parseDouble(fields[2]));
+                } else if(fields[0].equals(ATTRIBUTE_COUNT_PREFIX) && fields.length == 5) {
+                    attributeCounts.put(
+                            attributeCountKey(fields[1], fields[2], fields[3]),
+                            Double.parseDouble(fields[4]));
+                } else if(line.trim().length() > 0) {
+                    throw new Exception("Malformed partial counts line in " + file + ": " + line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if(classIndex < 0) {
+            throw new Exception("Missing class index in partial counts file " + file);
+        }
+
+        Instances header = new Instances(new StringReader(headerText.toString()));
+        header.setClassIndex(classIndex);
+        PartialCounts partialCounts = new PartialCounts(header);
+
+        Enumeration<String> classAttributeValueEnum = partialCounts.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            String classAttributeValue = classAttributeValueEnum.nextElement();
+            partialCounts.classAttributeOccurencies.put(
+                    classAttributeValue,
+                    readCount(classCounts, classAttributeValue, file));
+
+            Enumeration<Attribute> attributesEnum = header.enumerateAttributes();
+            while(attributesEnum.hasMoreElements()) {
+                Attribute attribute = attributesEnum.nextElement();
+                if(attribute.isNominal()) {
+                    ConditionalProbabilityTable table =
+                            partialCounts.attributeOccurencies.get(attribute.name());
+                    Enumeration<String> attributeValueEnum = attribute.enumerateValues();
+                    while(attributeValueEnum.hasMoreElements()) {
+                        String attributeValue = attributeValueEnum.nextElement();
+                        table.putValue(
+                                readCount(
+                                    attributeCounts,
+                                    attributeCountKey(attribute.name(), attributeValue, classAttributeValue),
+                                    file),
+                                attributeValue,
+                                classAttributeValue);
+                    }
+                }
+            }
+        }
+        return partialCounts;
+    }
+
+    // every value described by header has to be present in file
+    private static double readCount(HashMap<String, Double> counts, String key, File file) throws Exception {
+        Double count = counts.get(key);
+        if(count == null) {
+            throw new Exception("Missing count for " + key + " in partial counts file " + file);
+        }
+        return count;
+    }
+
+    private static String attributeCountKey(String attributeName, String attributeValue, String classAttributeValue) {
+        return attributeName + SEPARATOR + attributeValue + SEPARATOR + classAttributeValue;
+    }
+
+    // sets all counts to zero
+    public void clear() {
+        this.initCounts();
+    }
+
+    private void initCounts() {
+        Enumeration<String> classAttributeValueEnum = this.classAttribute.enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            this.classAttributeOccurencies.put(classAttributeValueEnum.nextElement(), 0.0);
+        }
+
+        Enumeration<Attribute> attributesEnum = this.header.enumerateAttributes();
+        while(attributesEnum.hasMoreElements()) {
+            Attribute attribute = attributesEnum.nextElement();
+            if(attribute.isNominal()) {
+                this.attributeOccurencies.put(
+                        attribute.name(),
+                        new ConditionalProbabilityTable(attribute, this.classAttribute));
+            }
+        }
+    }
+
+    // shard-and-merge training run as plain local processes:
+    //   count <training arff> <partial counts file>
+    //      counts local shard, class attribute is the last one
+    //   merge <merged counts file> <partial counts file> [<partial counts file> ...]
+    //      merges any number of partial counts into one file, which can be
+    //      merged further or turned into classifier
+    //   evaluate <test arff> <partial counts file> [<partial counts file> ...]
+    //      merges partial counts, builds classifier from them and evaluates
+    //      it on test data, class attribute is the last one
+    public static void main(String[] args) throws Exception {
+        if(args.length == 3 && args[0].equals("count")) {
+            Instances instances = new DataSource(args[1]).getDataSet();
+            instances.setClassIndex(instances.numAttributes()-1);
+            count(instances).write(new File(args[2]));
+        } else if(args.length >= 3 && args[0].equals("merge")) {
+            PartialCounts merged = read(new File(args[2]));
+            for(int a=3; a<args.length; ++a) {
+                merged.merge(read(new File(args[a])));
+            }
+            merged.write(new File(args[1]));
+        } else if(args.length >= 3 && args[0].equals("evaluate")) {
+            PartialCounts merged = read(new File(args[2]));
+            for(int a=3; a<args.length; ++a) {
+                merged.merge(read(new File(args[a])));
+            }
+            Instances testInstances = new DataSource(args[1]).getDataSet();
+            testInstances.setClassIndex(testInstances.numAttributes()-1);
+            merged.checkCompatibility(new PartialCounts(testInstances));
+            
+            NaiveBayes naiveBayes = new NaiveBayes();
+            naiveBayes.buildClassifier(merged);
+            Evaluation evaluation = new Evaluation(testInstances);
+            evaluation.evaluateModel(naiveBayes, testInstances);
+            System.out.println(evaluation.toSummaryString());
+            System.out.println(evaluation.toMatrixString());
+        } else {
+            System.err.println("Usage:");
+            System.err.println("  count <training arff> <partial counts file>");
+            System.err.println("  merge <merged counts file> <partial counts file> [<partial counts file> ...]");
+            System.err.println("  evaluate <test arff> <partial counts file> [<partial counts file> ...]");
+            System.exit(1);
+        }
+    }
+
+}
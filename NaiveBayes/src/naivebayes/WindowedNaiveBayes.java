@@ -0,0 +1,99 @@
+package naivebayes;
+
+import java.util.Enumeration;
+import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.core.Instance;
+import weka.core.Instances;
+
+// classifier built only from recent data - occurencies are kept in a ring
+// of time buckets and classifier uses their sum (window counts). Moving window
+// by one bucket forgets the oldest bucket, which costs time proportional to
+// model size, not to number of instances seen so far.
+// Empty window gives no prediction - classifyInstance returns missing value
+public class WindowedNaiveBayes extends Classifier implements UpdateableClassifier {
+
+    protected static final int DEFAULT_NUMBER_OF_BUCKETS = 10;
+
+    protected int numberOfBuckets;
+    protected PartialCounts[] buckets;
+    protected int currentBucket;
+    // sum of counts of all buckets
+    protected PartialCounts windowCounts;
+    // classifier built from window counts, rebuilt after counts change
+    protected NaiveBayes naiveBayes;
+
+    // default constructor lets weka create classifier by class name, but window
+    // is moved only by advanceBucket calls - without them (e.g. in weka command
+    // line evaluation) classifier works like plain naive bayes
+    public WindowedNaiveBayes() {
+        this(DEFAULT_NUMBER_OF_BUCKETS);
+    }
+
+    public WindowedNaiveBayes(int numberOfBuckets) {
+        this.setNumberOfBuckets(numberOfBuckets);
+    }
+
+    public int getNumberOfBuckets() {
+        return this.numberOfBuckets;
+    }
+
+    // new number of buckets is used by next buildClassifier call
+    public void setNumberOfBuckets(int numberOfBuckets) {
+        if(numberOfBuckets < 1) {
+            throw new IllegalArgumentException("Number of buckets has to be at least 1: " + numberOfBuckets);
+        }
+        this.numberOfBuckets = numberOfBuckets;
+    }
+
+    public PartialCounts getWindowCounts() {
+        return this.windowCounts;
+    }
+
+    // classifier building - all instances go to current bucket
+    @Override
+    public void buildClassifier(Instances i) throws Exception {
+        this.buckets = new PartialCounts[this.numberOfBuckets];
+        for(int a=0; a<this.numberOfBuckets; ++a) {
+            this.buckets[a] = new PartialCounts(i);
+        }
+        this.currentBucket = 0;
+        this.windowCounts = new PartialCounts(i);
+        this.naiveBayes = null;
+
+        Enumeration<Instance> instancesEnum = i.enumerateInstances();
+        while(instancesEnum.hasMoreElements()) {
+            this.updateClassifier(instancesEnum.nextElement());
+        }
+    }
+
+    // adds instance to current bucket
+    @Override
+    public void updateClassifier(Instance instance) {
+        this.buckets[this.currentBucket].addInstance(instance);
+        this.windowCounts.addInstance(instance);
+        this.naiveBayes = null;
+    }
+
+    // starts new time bucket - the oldest one is removed from window
+    // and reused as current bucket
+    public void advanceBucket() {
+        this.currentBucket = (this.currentBucket+1)%this.buckets.length;
+        this.windowCounts.add(this.buckets[this.currentBucket], -1.0);
+        this.buckets[this.currentBucket].clear();
+        this.naiveBayes = null;
+    }
+
+    @Override
+    public double classifyInstance(Instance inst) {
+        if(this.windowCounts.getNumberOfInstances() <= 0.0) {
+            return Instance.missingValue();
+        }
+        if(this.naiveBayes == null) {
+            this.naiveBayes = new NaiveBayes();
+            this.naiveBayes.buildClassifier(this.windowCounts);
+        }
+        return this.naiveBayes.classifyInstance(inst);
+    }
+
+}
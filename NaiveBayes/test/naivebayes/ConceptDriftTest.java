@@ -0,0 +1,159 @@
+package naivebayes;
+
+import java.util.Enumeration;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import weka.classifiers.Classifier;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ConverterUtils.DataSource;
+
+// window has to contain only counts of recent instances and lazy decay has to
+// classify like counts weighted directly by decay, also after stored counts are rescaled
+public class ConceptDriftTest {
+
+    private Instances instances;
+
+    @Before
+    public void loadInstances() throws Exception {
+        this.instances = new DataSource("./data/weather.nominal.arff").getDataSet();
+        this.instances.setClassIndex(this.instances.numAttributes()-1);
+    }
+
+    // instances are added in pairs, each pair in new bucket - after moving window
+    // more times than number of buckets, window has to hold only last pairs
+    @Test
+    public void windowHoldsOnlyRecentInstances() throws Exception {
+        int numberOfBuckets = 3;
+        int instancesInBucket = 2;
+        WindowedNaiveBayes windowedNaiveBayes = new WindowedNaiveBayes(numberOfBuckets);
+        windowedNaiveBayes.buildClassifier(new Instances(this.instances, 0));
+
+        for(int a=0; a<this.instances.numInstances(); ++a) {
+            if(a > 0 && a%instancesInBucket == 0) {
+                windowedNaiveBayes.advanceBucket();
+            }
+            windowedNaiveBayes.updateClassifier(this.instances.instance(a));
+
+            int firstInWindow = Math.max(0, (a/instancesInBucket-numberOfBuckets+1)*instancesInBucket);
+            Instances recentInstances = new Instances(this.instances, firstInWindow, a-firstInWindow+1);
+            assertTrue("window after instance " + a,
+                    windowedNaiveBayes.getWindowCounts().equalCounts(PartialCounts.count(recentInstances), 0.0));
+
+            NaiveBayes naiveBayes = new NaiveBayes();
+            naiveBayes.buildClassifier(recentInstances);
+            for(int b=0; b<this.instances.numInstances(); ++b) {
+                assertEquals("instance " + b + " after instance " + a,
+                        naiveBayes.classifyInstance(this.instances.instance(b)),
+                        windowedNaiveBayes.classifyInstance(this.instances.instance(b)), 0.0);
+            }
+        }
+    }
+
+    // window without instances gives no prediction
+    @Test
+    public void emptyWindowGivesNoPrediction() throws Exception {
+        WindowedNaiveBayes windowedNaiveBayes = new WindowedNaiveBayes(2);
+        windowedNaiveBayes.buildClassifier(new Instances(this.instances, 0));
+        assertTrue(Instance.isMissingValue(windowedNaiveBayes.classifyInstance(this.instances.instance(0))));
+
+        // all buckets expired
+        windowedNaiveBayes.buildClassifier(this.instances);
+        windowedNaiveBayes.advanceBucket();
+        windowedNaiveBayes.advanceBucket();
+        assertTrue(Instance.isMissingValue(windowedNaiveBayes.classifyInstance(this.instances.instance(0))));
+    }
+
+    // each decay step halves weight of previous instances - classification and
+    // class counts have to match counts weighted directly, before and after rescale
+    @Test
+    public void lazyDecayMatchesDirectlyWeightedCounts() throws Exception {
+        double decayFactor = 0.5;
+        DecayedNaiveBayes decayedNaiveBayes = new DecayedNaiveBayes(decayFactor);
+        decayedNaiveBayes.buildClassifier(new Instances(this.instances, 0));
+
+        int half = this.instances.numInstances()/2;
+        for(int a=0; a<half; ++a) {
+            decayedNaiveBayes.updateClassifier(this.instances.instance(a));
+            decayedNaiveBayes.decay();
+        }
+        double[] predictions = classify(decayedNaiveBayes);
+        assertSameAsCounts(decayedNaiveBayes, decayedCounts(half, decayFactor, 0));
+
+        // enough decay steps to get scale below minimum scale
+        int decaySteps = 0;
+        for(double scale = decayedNaiveBayes.scale;
+                scale >= DecayedNaiveBayes.MINIMUM_SCALE; scale *= decayFactor) {
+            decayedNaiveBayes.decay();
+            ++decaySteps;
+        }
+        assertEquals("stored counts were not rescaled", 1.0, decayedNaiveBayes.scale, 0.0);
+        double[] predictionsAfterRescale = classify(decayedNaiveBayes);
+        for(int a=0; a<this.instances.numInstances(); ++a) {
+            assertEquals("instance " + a, predictions[a], predictionsAfterRescale[a], 0.0);
+        }
+        assertSameAsCounts(decayedNaiveBayes, decayedCounts(half, decayFactor, decaySteps));
+
+        // new instances after rescale have to get full weight again
+        for(int a=half; a<this.instances.numInstances(); ++a) {
+            decayedNaiveBayes.updateClassifier(this.instances.instance(a));
+            decayedNaiveBayes.decay();
+        }
+        assertSameAsCounts(
+                decayedNaiveBayes,
+                decayedCounts(this.instances.numInstances(), decayFactor, decaySteps));
+    }
+
+    // weka creates classifiers by class name
+    @Test
+    public void classifiersAreCreatedByClassName() throws Exception {
+        Classifier.forName(WindowedNaiveBayes.class.getName(), null);
+        Classifier.forName(DecayedNaiveBayes.class.getName(), null);
+    }
+
+    // counts of first instances, each weighted by decay factor to the power of
+    // number of decay steps after it, extra decay steps are made after half of instances
+    private PartialCounts decayedCounts(int numberOfInstances, double decayFactor, int extraDecaySteps) {
+        int half = this.instances.numInstances()/2;
+        PartialCounts counts = new PartialCounts(this.instances);
+        for(int a=0; a<numberOfInstances; ++a) {
+            int decaySteps = numberOfInstances-a;
+            if(a < half) {
+                decaySteps += extraDecaySteps;
+            }
+            counts.addInstance(this.instances.instance(a), Math.pow(decayFactor, decaySteps));
+        }
+        return counts;
+    }
+
+    private void assertSameAsCounts(DecayedNaiveBayes decayedNaiveBayes, PartialCounts counts) throws Exception {
+        Enumeration<String> classAttributeValueEnum = counts.getClassAttribute().enumerateValues();
+        while(classAttributeValueEnum.hasMoreElements()) {
+            String classAttributeValue = classAttributeValueEnum.nextElement();
+            double expected = counts.getClassAttributeOccurencies().get(classAttributeValue);
+            assertEquals("class " + classAttributeValue,
+                    expected,
+                    decayedNaiveBayes.getClassAttributeOccurencies(classAttributeValue),
+                    expected*1e-9);
+        }
+
+        NaiveBayes naiveBayes = new NaiveBayes();
+        naiveBayes.buildClassifier(counts);
+        double[] predictions = classify(decayedNaiveBayes);
+        for(int a=0; a<this.instances.numInstances(); ++a) {
+            assertEquals("instance " + a,
+                    naiveBayes.classifyInstance(this.instances.instance(a)), predictions[a], 0.0);
+        }
+    }
+
+    private double[] classify(Classifier classifier) throws Exception {
+        double[] predictions = new double[this.instances.numInstances()];
+        for(int a=0; a<this.instances.numInstances(); ++a) {
+            predictions[a] = classifier.classifyInstance(this.instances.instance(a));
+        }
+        return predictions;
+    }
+
+}
@@ -0,0 +1,134 @@
+package naivebayes;
+
+import java.io.File;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ConverterUtils.DataSource;
+
+// counting shards, writing and reading them back and merging
+// has to give the same counts as counting all data
+public class PartialCountsTest {
+
+    private Instances instances;
+
+    @Before
+    public void loadInstances() throws Exception {
+        this.instances = new DataSource("./data/weather.nominal.arff").getDataSet();
+        this.instances.setClassIndex(this.instances.numAttributes()-1);
+    }
+
+    // count -> write -> read -> merge compared with count of all instances
+    @Test
+    public void mergedShardsGiveCountsOfAllInstances() throws Exception {
+        int firstShardSize = this.instances.numInstances()/2;
+        Instances firstShard = new Instances(this.instances, 0, firstShardSize);
+        Instances secondShard = new Instances(
+                this.instances, firstShardSize, this.instances.numInstances()-firstShardSize);
+
+        File firstFile = File.createTempFile("naivebayes-shard", ".counts");
+        File secondFile = File.createTempFile("naivebayes-shard", ".counts");
+        try {
+            PartialCounts.count(firstShard).write(firstFile);
+            PartialCounts.count(secondShard).write(secondFile);
+
+            PartialCounts merged = PartialCounts.read(firstFile);
+            merged.merge(PartialCounts.read(secondFile));
+            assertTrue(merged.equalCounts(PartialCounts.count(this.instances), 0.0));
+
+            // classifier built from merged counts has to classify like one built from all instances
+            NaiveBayes mergedNaiveBayes = new NaiveBayes();
+            mergedNaiveBayes.buildClassifier(merged);
+            NaiveBayes naiveBayes = new NaiveBayes();
+            naiveBayes.buildClassifier(this.instances);
+            for(int a=0; a<this.instances.numInstances(); ++a) {
+                assertEquals("instance " + a,
+                        naiveBayes.classifyInstance(this.instances.instance(a)),
+                        mergedNaiveBayes.classifyInstance(this.instances.instance(a)), 0.0);
+            }
+        } finally {
+            firstFile.delete();
+            secondFile.delete();
+        }
+    }
+
+    // counts with different class attribute can't be merged
+    @Test
+    public void countsWithDifferentClassAttributeAreNotMerged() throws Exception {
+        Instances otherClassInstances = new Instances(this.instances);
+        otherClassInstances.setClassIndex(0);
+        try {
+            PartialCounts.count(this.instances).merge(PartialCounts.count(otherClassInstances));
+            fail("Counts with different class attributes were merged");
+        } catch(Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Partial counts have different class attributes"));
+        }
+    }
+
+    // missing attribute values are skipped both by counting and classification
+    @Test
+    public void missingValuesAreSkipped() throws Exception {
+        Instances instancesWithMissingValue = new Instances(this.instances);
+        Instance instanceWithMissingValue = (Instance)instancesWithMissingValue.instance(0).copy();
+        instanceWithMissingValue.setMissing(0);
+        instancesWithMissingValue.add(instanceWithMissingValue);
+
+        PartialCounts counts = PartialCounts.count(instancesWithMissingValue);
+        assertEquals(instancesWithMissingValue.numInstances(), counts.getNumberOfInstances(), 0.0);
+
+        // instance with missing value is classified by remaining attributes
+        Instances instancesWithoutAttribute = new Instances(instancesWithMissingValue);
+        instancesWithoutAttribute.deleteAttributeAt(0);
+        NaiveBayes naiveBayes = new NaiveBayes();
+        naiveBayes.buildClassifier(counts);
+        NaiveBayes naiveBayesWithoutAttribute = new NaiveBayes();
+        naiveBayesWithoutAttribute.buildClassifier(PartialCounts.count(instancesWithoutAttribute));
+        int last = instancesWithMissingValue.numInstances()-1;
+        assertEquals(
+                naiveBayesWithoutAttribute.classifyInstance(instancesWithoutAttribute.instance(last)),
+                naiveBayes.classifyInstance(instancesWithMissingValue.instance(last)), 0.0);
+    }
+
+    // counts can't be made for numeric class attribute
+    @Test
+    public void numericClassAttributeIsRejected() throws Exception {
+        Instances numericInstances = new DataSource("./data/weather.numeric.arff").getDataSet();
+        numericInstances.setClassIndex(1);
+        try {
+            PartialCounts.count(numericInstances);
+            fail("Counts with numeric class attribute were made");
+        } catch(IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Partial counts need nominal class attribute"));
+        }
+    }
+
+    // values with tab can't be written, because tab separates fields in file
+    @Test
+    public void valuesWithTabAreNotWritten() throws Exception {
+        FastVector values = new FastVector();
+        values.addElement("a\tb");
+        values.addElement("c");
+        FastVector attributes = new FastVector();
+        attributes.addElement(new Attribute("tabbed", values));
+        attributes.addElement((Attribute)this.instances.classAttribute().copy());
+        Instances tabbedInstances = new Instances("tabbed", attributes, 0);
+        tabbedInstances.setClassIndex(1);
+
+        File file = File.createTempFile("naivebayes-tabbed", ".counts");
+        try {
+            PartialCounts.count(tabbedInstances).write(file);
+            fail("Counts with tab in attribute value were written");
+        } catch(Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("contains tab or line break"));
+        } finally {
+            file.delete();
+        }
+    }
+
+}